@@ -7,21 +7,36 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "food_items.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 2;
 
     // Table name
     public static final String TABLE_FOOD_ITEMS = "food_items";
+    // Statistics tables, kept up to date by the write methods below
+    public static final String TABLE_EXPIRY_STATS = "expiry_stats";
+    public static final String TABLE_WEEKLY_STATS = "weekly_stats";
+    // Log of removed items, only read when the statistics are rebuilt
+    public static final String TABLE_REMOVED_ITEMS = "removed_items";
     
     // Column names
     public static final String COLUMN_ID = "id";
     public static final String COLUMN_TITLE = "title";
     public static final String COLUMN_EXPIRY_DATE = "expiry_date";
     public static final String COLUMN_IMAGE_PATH = "image_path";
+    public static final String COLUMN_ITEM_COUNT = "item_count";
+    public static final String COLUMN_WEEK_START = "week_start";
+    public static final String COLUMN_CONSUMED = "consumed";
+    public static final String COLUMN_WASTED = "wasted";
+    public static final String COLUMN_REMOVED_DATE = "removed_date";
 
     // Create table SQL query
     private static final String CREATE_TABLE_FOOD_ITEMS = "CREATE TABLE " + TABLE_FOOD_ITEMS + "("
@@ -31,6 +46,39 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             + COLUMN_IMAGE_PATH + " TEXT"
             + ")";
 
+    // Number of items per expiry date
+    private static final String CREATE_TABLE_EXPIRY_STATS = "CREATE TABLE " + TABLE_EXPIRY_STATS + "("
+            + COLUMN_EXPIRY_DATE + " TEXT PRIMARY KEY,"
+            + COLUMN_ITEM_COUNT + " INTEGER NOT NULL"
+            + ")";
+
+    // Number of consumed and wasted items per week (week_start is the Monday)
+    private static final String CREATE_TABLE_WEEKLY_STATS = "CREATE TABLE " + TABLE_WEEKLY_STATS + "("
+            + COLUMN_WEEK_START + " TEXT PRIMARY KEY,"
+            + COLUMN_CONSUMED + " INTEGER NOT NULL,"
+            + COLUMN_WASTED + " INTEGER NOT NULL"
+            + ")";
+
+    private static final String CREATE_TABLE_REMOVED_ITEMS = "CREATE TABLE " + TABLE_REMOVED_ITEMS + "("
+            + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+            + COLUMN_EXPIRY_DATE + " TEXT,"
+            + COLUMN_REMOVED_DATE + " TEXT,"
+            + COLUMN_WEEK_START + " TEXT,"
+            + COLUMN_WASTED + " INTEGER"
+            + ")";
+
+    // Statistics recomputed from scratch, used by checkStatistics()
+    private static final String SELECT_EXPIRY_COUNTS = "SELECT " + COLUMN_EXPIRY_DATE + ", COUNT(*)"
+            + " FROM " + TABLE_FOOD_ITEMS
+            + " WHERE " + COLUMN_EXPIRY_DATE + " IS NOT NULL"
+            + " GROUP BY " + COLUMN_EXPIRY_DATE;
+
+    private static final String SELECT_WEEKLY_COUNTS = "SELECT " + COLUMN_WEEK_START + ","
+            + " SUM(CASE WHEN " + COLUMN_WASTED + " = 0 THEN 1 ELSE 0 END),"
+            + " SUM(CASE WHEN " + COLUMN_WASTED + " = 1 THEN 1 ELSE 0 END)"
+            + " FROM " + TABLE_REMOVED_ITEMS
+            + " GROUP BY " + COLUMN_WEEK_START;
+
     public DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
     }
@@ -38,12 +86,22 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(CREATE_TABLE_FOOD_ITEMS);
+        createStatisticsTables(db);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_FOOD_ITEMS);
-        onCreate(db);
+        if (oldVersion < 2) {
+            // Keep the existing items and build their statistics once
+            createStatisticsTables(db);
+            rebuildStatistics(db);
+        }
+    }
+
+    private void createStatisticsTables(SQLiteDatabase db) {
+        db.execSQL(CREATE_TABLE_EXPIRY_STATS);
+        db.execSQL(CREATE_TABLE_WEEKLY_STATS);
+        db.execSQL(CREATE_TABLE_REMOVED_ITEMS);
     }
 
     // Insert a new food item
@@ -54,7 +112,17 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         values.put(COLUMN_EXPIRY_DATE, expiryDate);
         values.put(COLUMN_IMAGE_PATH, imagePath);
         
-        long id = db.insert(TABLE_FOOD_ITEMS, null, values);
+        long id;
+        db.beginTransaction();
+        try {
+            id = db.insert(TABLE_FOOD_ITEMS, null, values);
+            if (id != -1) {
+                adjustExpiryCount(db, expiryDate, 1);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
         db.close();
         return id;
     }
@@ -93,18 +161,182 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         values.put(COLUMN_EXPIRY_DATE, foodItem.getExpiryDate());
         values.put(COLUMN_IMAGE_PATH, foodItem.getImagePath());
         
-        // Update row
-        int result = db.update(TABLE_FOOD_ITEMS, values, COLUMN_ID + " = ?",
-                new String[]{String.valueOf(foodItem.getId())});
+        int result;
+        db.beginTransaction();
+        try {
+            String oldExpiryDate = getExpiryDate(db, foodItem.getId());
+            
+            // Update row
+            result = db.update(TABLE_FOOD_ITEMS, values, COLUMN_ID + " = ?",
+                    new String[]{String.valueOf(foodItem.getId())});
+            if (result > 0) {
+                adjustExpiryCount(db, oldExpiryDate, -1);
+                adjustExpiryCount(db, foodItem.getExpiryDate(), 1);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
         db.close();
         return result;
     }
 
-    // Delete a food item
-    public void deleteFoodItem(int id) {
+    // Delete a food item, wasted tells whether it was thrown away instead of eaten
+    public void deleteFoodItem(int id, boolean wasted) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            String expiryDate = getExpiryDate(db, id);
+            int deleted = db.delete(TABLE_FOOD_ITEMS, COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+            if (deleted > 0) {
+                adjustExpiryCount(db, expiryDate, -1);
+                logRemoval(db, expiryDate, wasted);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        db.close();
+    }
+
+    private String getExpiryDate(SQLiteDatabase db, int id) {
+        Cursor cursor = db.query(TABLE_FOOD_ITEMS, new String[]{COLUMN_EXPIRY_DATE}, COLUMN_ID + " = ?",
+                new String[]{String.valueOf(id)}, null, null, null);
+        String expiryDate = cursor.moveToFirst() ? cursor.getString(0) : null;
+        cursor.close();
+        return expiryDate;
+    }
+
+    private void adjustExpiryCount(SQLiteDatabase db, String expiryDate, int delta) {
+        if (expiryDate == null) return;
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_EXPIRY_STATS + " (" + COLUMN_EXPIRY_DATE + ", "
+                + COLUMN_ITEM_COUNT + ") VALUES (?, 0)", new Object[]{expiryDate});
+        db.execSQL("UPDATE " + TABLE_EXPIRY_STATS + " SET " + COLUMN_ITEM_COUNT + " = " + COLUMN_ITEM_COUNT
+                + " + ? WHERE " + COLUMN_EXPIRY_DATE + " = ?", new Object[]{delta, expiryDate});
+        // Drop empty dates so the table only grows with the number of distinct dates in stock
+        db.delete(TABLE_EXPIRY_STATS, COLUMN_EXPIRY_DATE + " = ? AND " + COLUMN_ITEM_COUNT + " <= 0",
+                new String[]{expiryDate});
+    }
+
+    private void logRemoval(SQLiteDatabase db, String expiryDate, boolean wasted) {
+        Calendar today = Calendar.getInstance();
+        String weekStart = formatDate(getWeekStart(today));
+        
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_EXPIRY_DATE, expiryDate);
+        values.put(COLUMN_REMOVED_DATE, formatDate(today));
+        values.put(COLUMN_WEEK_START, weekStart);
+        values.put(COLUMN_WASTED, wasted ? 1 : 0);
+        db.insert(TABLE_REMOVED_ITEMS, null, values);
+        
+        String column = wasted ? COLUMN_WASTED : COLUMN_CONSUMED;
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_WEEKLY_STATS + " (" + COLUMN_WEEK_START + ", "
+                + COLUMN_CONSUMED + ", " + COLUMN_WASTED + ") VALUES (?, 0, 0)", new Object[]{weekStart});
+        db.execSQL("UPDATE " + TABLE_WEEKLY_STATS + " SET " + column + " = " + column + " + 1 WHERE "
+                + COLUMN_WEEK_START + " = ?", new Object[]{weekStart});
+    }
+
+    // Read the report from the statistics tables only. The cost depends on the number of
+    // distinct expiry dates and weeks, not on the number of food items.
+    public InventoryStats getInventoryStats(int weeks) {
+        Calendar day = Calendar.getInstance();
+        String today = formatDate(day);
+        day.add(Calendar.DAY_OF_MONTH, 3);
+        String inThreeDays = formatDate(day);
+        day.add(Calendar.DAY_OF_MONTH, 4);
+        String inSevenDays = formatDate(day);
+        
+        InventoryStats stats = new InventoryStats();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT"
+                + " SUM(CASE WHEN " + COLUMN_EXPIRY_DATE + " < ? THEN " + COLUMN_ITEM_COUNT + " ELSE 0 END),"
+                + " SUM(CASE WHEN " + COLUMN_EXPIRY_DATE + " >= ? AND " + COLUMN_EXPIRY_DATE + " < ? THEN "
+                + COLUMN_ITEM_COUNT + " ELSE 0 END),"
+                + " SUM(CASE WHEN " + COLUMN_EXPIRY_DATE + " >= ? AND " + COLUMN_EXPIRY_DATE + " < ? THEN "
+                + COLUMN_ITEM_COUNT + " ELSE 0 END),"
+                + " SUM(CASE WHEN " + COLUMN_EXPIRY_DATE + " >= ? THEN " + COLUMN_ITEM_COUNT + " ELSE 0 END)"
+                + " FROM " + TABLE_EXPIRY_STATS,
+                new String[]{today, today, inThreeDays, inThreeDays, inSevenDays, inSevenDays});
+        if (cursor.moveToFirst()) {
+            stats.setExpired(cursor.getInt(0));
+            stats.setExpiringSoon(cursor.getInt(1));
+            stats.setExpiringThisWeek(cursor.getInt(2));
+            stats.setExpiringLater(cursor.getInt(3));
+        }
+        cursor.close();
+        
+        cursor = db.query(TABLE_WEEKLY_STATS, null, null, null, null, null,
+                COLUMN_WEEK_START + " DESC", String.valueOf(weeks));
+        while (cursor.moveToNext()) {
+            stats.getWeeks().add(new InventoryStats.Week(
+                    cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_WEEK_START)),
+                    cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_CONSUMED)),
+                    cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_WASTED))));
+        }
+        cursor.close();
+        db.close();
+        return stats;
+    }
+
+    // Recompute the statistics from food_items and removed_items and compare them with the stored ones.
+    // Returns true if they matched, otherwise the stored statistics are replaced and false is returned.
+    public boolean checkStatistics() {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_FOOD_ITEMS, COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+        boolean consistent;
+        db.beginTransaction();
+        try {
+            consistent = readCounts(db, "SELECT " + COLUMN_EXPIRY_DATE + ", " + COLUMN_ITEM_COUNT
+                            + " FROM " + TABLE_EXPIRY_STATS)
+                    .equals(readCounts(db, SELECT_EXPIRY_COUNTS))
+                    && readCounts(db, "SELECT " + COLUMN_WEEK_START + ", " + COLUMN_CONSUMED + ", " + COLUMN_WASTED
+                            + " FROM " + TABLE_WEEKLY_STATS)
+                    .equals(readCounts(db, SELECT_WEEKLY_COUNTS));
+            if (!consistent) {
+                rebuildStatistics(db);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
         db.close();
+        return consistent;
+    }
+
+    private void rebuildStatistics(SQLiteDatabase db) {
+        db.delete(TABLE_EXPIRY_STATS, null, null);
+        db.delete(TABLE_WEEKLY_STATS, null, null);
+        db.execSQL("INSERT INTO " + TABLE_EXPIRY_STATS + " (" + COLUMN_EXPIRY_DATE + ", " + COLUMN_ITEM_COUNT + ") "
+                + SELECT_EXPIRY_COUNTS);
+        db.execSQL("INSERT INTO " + TABLE_WEEKLY_STATS + " (" + COLUMN_WEEK_START + ", " + COLUMN_CONSUMED + ", "
+                + COLUMN_WASTED + ") " + SELECT_WEEKLY_COUNTS);
+    }
+
+    // Maps the first column of each row to the remaining columns joined as text
+    private Map<String, String> readCounts(SQLiteDatabase db, String query) {
+        Map<String, String> counts = new HashMap<>();
+        Cursor cursor = db.rawQuery(query, null);
+        while (cursor.moveToNext()) {
+            StringBuilder value = new StringBuilder();
+            for (int i = 1; i < cursor.getColumnCount(); i++) {
+                value.append(cursor.getLong(i)).append(',');
+            }
+            counts.put(cursor.getString(0), value.toString());
+        }
+        cursor.close();
+        return counts;
+    }
+
+    private static Calendar getWeekStart(Calendar day) {
+        Calendar weekStart = (Calendar) day.clone();
+        while (weekStart.get(Calendar.DAY_OF_WEEK) != Calendar.MONDAY) {
+            weekStart.add(Calendar.DAY_OF_MONTH, -1);
+        }
+        return weekStart;
+    }
+
+    // Same format as the expiry dates written by MainActivity
+    private static String formatDate(Calendar day) {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(day.getTime());
     }
 
     public List<FoodItem> searchFoodItems(String query) {
@@ -0,0 +1,236 @@
+package com.example.myapp;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Extracts an expiry date from recognized package text.
+// Plain Java on purpose, so it does not depend on the OCR engine.
+public class ExpiryDateParser {
+
+    // "best before", "mindestens haltbar bis", "MHD", "EXP", "use by" ...
+    private static final Pattern KEYWORD = Pattern.compile(
+            "best\\s*before|use\\s*by|exp(?:iry|ires)?\\b|\\bbb\\b|mhd|mindestens\\s*haltbar|verbrauchen\\s*bis|haltbar\\s*bis",
+            Pattern.CASE_INSENSITIVE);
+
+    // DD.MM.YYYY, DD/MM/YY, DD-MM-YYYY (commas are accepted, OCR often reads dots as commas)
+    private static final Pattern DAY_MONTH_YEAR = Pattern.compile(
+            "(?<!\\d)(\\d{1,2})\\s*[.,/-]\\s*(\\d{1,2})\\s*[.,/-]\\s*(\\d{4}|\\d{2})(?!\\d)");
+
+    // Dates without a day, the product is good until the end of the month.
+    // MM/YY, MM-YYYY, MM.YYYY, MM,YYYY
+    private static final Pattern MONTH_YEAR = monthYear("[/-]", "\\d{4}|\\d{2}");
+    private static final Pattern MONTH_FULL_YEAR = monthYear("[.,]", "\\d{4}");
+    // MM.YY and MM,YY look exactly like prices and weights ("3.29", "4,29", "1.25 lb"),
+    // so they are only accepted right after a keyword
+    private static final Pattern MONTH_SHORT_YEAR = monthYear("[.,]", "\\d{2}");
+
+    // What may stand between a keyword and the date it belongs to, e.g. "MHD: "
+    private static final Pattern KEYWORD_GAP = Pattern.compile("[\\s:.]*");
+
+    // Dates further ahead than this are most likely lot numbers
+    private static final int MAX_YEARS_AHEAD = 10;
+    // A product that is being added is not expected to be expired for longer than this
+    private static final int MAX_DAYS_PAST = 3;
+
+    // How much a parsed date can be trusted, in increasing order
+    public enum Confidence {
+        MONTH_ONLY,
+        FULL_DATE,
+        AFTER_KEYWORD
+    }
+
+    public static class Result {
+        private final Calendar date;
+        private final Confidence confidence;
+
+        Result(Calendar date, Confidence confidence) {
+            this.date = date;
+            this.confidence = confidence;
+        }
+
+        public Calendar getDate() {
+            return date;
+        }
+
+        public Confidence getConfidence() {
+            return confidence;
+        }
+
+        // true if this result should be preferred over other, which may be null
+        public boolean isBetterThan(Result other) {
+            return other == null || confidence.compareTo(other.confidence) > 0;
+        }
+    }
+
+    private static class Candidate {
+        final Calendar date;
+        final int start;
+        final int end;
+        // false for MM/YY dates without a day
+        final boolean fullDate;
+
+        Candidate(Calendar date, int start, int end, boolean fullDate) {
+            this.date = date;
+            this.start = start;
+            this.end = end;
+            this.fullDate = fullDate;
+        }
+    }
+
+    private static Pattern monthYear(String separator, String year) {
+        return Pattern.compile("(?<!\\d|\\d[.,/-])(\\d{1,2})\\s*" + separator + "\\s*(" + year + ")(?!\\d|[.,/-]\\d)");
+    }
+
+    // Characters the OCR engine typically confuses with digits
+    private static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char prev = i > 0 ? text.charAt(i - 1) : ' ';
+            char next = i + 1 < text.length() ? text.charAt(i + 1) : ' ';
+            boolean besideDigit = Character.isDigit(prev) || Character.isDigit(next);
+            if (besideDigit && (c == 'O' || c == 'o')) {
+                sb.append('0');
+            } else if (besideDigit && (c == 'l' || c == 'I')) {
+                sb.append('1');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Returns the most likely expiry date in the text, or null if none was found.
+    // The first date following a "best before" keyword wins over any other date.
+    // Otherwise the latest full date is used (production dates come earlier),
+    // and a month-only date only if there is no full date at all.
+    public static Calendar parse(String text) {
+        return parse(text, Calendar.getInstance());
+    }
+
+    static Calendar parse(String text, Calendar now) {
+        Result result = find(text, now);
+        return result == null ? null : result.getDate();
+    }
+
+    // Like parse(), but also tells how the date was found
+    public static Result find(String text) {
+        return find(text, Calendar.getInstance());
+    }
+
+    // now is the reference for the plausible date range
+    static Result find(String text, Calendar now) {
+        if (text == null || text.isEmpty()) return null;
+
+        String normalized = normalize(text);
+        List<Integer> keywordEnds = new ArrayList<>();
+        Matcher keyword = KEYWORD.matcher(normalized);
+        while (keyword.find()) {
+            keywordEnds.add(keyword.end());
+        }
+        List<Candidate> candidates = findCandidates(normalized, keywordEnds, now);
+
+        for (int keywordEnd : keywordEnds) {
+            Candidate first = null;
+            for (Candidate candidate : candidates) {
+                if (candidate.start >= keywordEnd && (first == null || candidate.start < first.start)) {
+                    first = candidate;
+                }
+            }
+            if (first != null) return new Result(first.date, Confidence.AFTER_KEYWORD);
+        }
+
+        Candidate best = null;
+        for (Candidate candidate : candidates) {
+            if (best == null
+                    || (candidate.fullDate && !best.fullDate)
+                    || (candidate.fullDate == best.fullDate && candidate.date.after(best.date))) {
+                best = candidate;
+            }
+        }
+        if (best == null) return null;
+        return new Result(best.date, best.fullDate ? Confidence.FULL_DATE : Confidence.MONTH_ONLY);
+    }
+
+    private static List<Candidate> findCandidates(String text, List<Integer> keywordEnds, Calendar now) {
+        List<Candidate> candidates = new ArrayList<>();
+
+        Matcher m = DAY_MONTH_YEAR.matcher(text);
+        while (m.find()) {
+            Calendar date = toCalendar(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                    m.group(3), now);
+            if (date != null) {
+                candidates.add(new Candidate(date, m.start(), m.end(), true));
+            }
+        }
+
+        m = MONTH_YEAR.matcher(text);
+        while (m.find()) {
+            addMonthYear(candidates, m, now);
+        }
+
+        m = MONTH_FULL_YEAR.matcher(text);
+        while (m.find()) {
+            addMonthYear(candidates, m, now);
+        }
+
+        m = MONTH_SHORT_YEAR.matcher(text);
+        while (m.find()) {
+            if (followsKeyword(text, m.start(), keywordEnds)) {
+                addMonthYear(candidates, m, now);
+            }
+        }
+        return candidates;
+    }
+
+    // Month-only matches inside a full date ("05. 2027" in "12. 05. 2027") are skipped
+    private static void addMonthYear(List<Candidate> candidates, Matcher m, Calendar now) {
+        for (Candidate candidate : candidates) {
+            if (m.start() < candidate.end && candidate.start < m.end()) return;
+        }
+        Calendar date = toCalendar(0, Integer.parseInt(m.group(1)), m.group(2), now);
+        if (date != null) {
+            candidates.add(new Candidate(date, m.start(), m.end(), false));
+        }
+    }
+
+    private static boolean followsKeyword(String text, int start, List<Integer> keywordEnds) {
+        for (int keywordEnd : keywordEnds) {
+            if (keywordEnd <= start && KEYWORD_GAP.matcher(text.substring(keywordEnd, start)).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // day == 0 means "end of month"
+    private static Calendar toCalendar(int day, int month, String yearText, Calendar now) {
+        int year = Integer.parseInt(yearText);
+        if (yearText.length() == 2) year += 2000;
+        if (month < 1 || month > 12) return null;
+
+        if (year > now.get(Calendar.YEAR) + MAX_YEARS_AHEAD) return null;
+
+        Calendar calendar = Calendar.getInstance(Locale.getDefault());
+        calendar.clear();
+        calendar.set(Calendar.YEAR, year);
+        calendar.set(Calendar.MONTH, month - 1);
+        int lastDay = calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+        if (day == 0) {
+            day = lastDay;
+        } else if (day > lastDay) {
+            return null;
+        }
+        calendar.set(Calendar.DAY_OF_MONTH, day);
+
+        Calendar earliest = Calendar.getInstance(Locale.getDefault());
+        earliest.clear();
+        earliest.set(now.get(Calendar.YEAR), now.get(Calendar.MONTH), now.get(Calendar.DAY_OF_MONTH));
+        earliest.add(Calendar.DAY_OF_MONTH, -MAX_DAYS_PAST);
+        return calendar.before(earliest) ? null : calendar;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.myapp;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
+import com.google.mlkit.vision.text.TextRecognition;
+import com.google.mlkit.vision.text.TextRecognizer;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Reads the expiry date from a product photo with on-device OCR.
+// Runs on its own thread and gives up after TIMEOUT_MS, so the add dialog never waits for it.
+public class ExpiryDateRecognizer {
+
+    public interface Callback {
+        // Called on the main thread, only when a date was found in time
+        void onExpiryDateRecognized(Calendar date);
+    }
+
+    // Longest side of the frame handed to the OCR engine
+    private static final int MAX_FRAME_SIZE = 1024;
+    // Total budget for one photo, all passes included
+    private static final long TIMEOUT_MS = 2000;
+    // How many text regions are re-read at full resolution
+    private static final int MAX_REGIONS = 4;
+    private static final int REGION_PADDING = 24;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final TextRecognizer recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
+    // Only the most recent photo may deliver a result
+    private final AtomicInteger generation = new AtomicInteger();
+
+    public void recognize(Bitmap photo, Callback callback) {
+        if (photo == null) return;
+
+        int requestId = generation.incrementAndGet();
+        executor.execute(() -> {
+            // Photos replaced while waiting in the queue are not read at all
+            if (requestId != generation.get()) return;
+            // The budget starts when the job runs, not when it was queued
+            long deadline = SystemClock.elapsedRealtime() + TIMEOUT_MS;
+            Calendar date = findExpiryDate(photo, requestId, deadline);
+            if (date == null) return;
+            mainHandler.post(() -> {
+                if (requestId == generation.get()) {
+                    callback.onExpiryDateRecognized(date);
+                }
+            });
+        });
+    }
+
+    public void close() {
+        generation.incrementAndGet();
+        executor.shutdownNow();
+        recognizer.close();
+    }
+
+    private Calendar findExpiryDate(Bitmap photo, int requestId, long deadline) {
+        // First pass: the whole photo, downscaled
+        Bitmap frame = ImageUtils.scaleDown(photo, MAX_FRAME_SIZE);
+        Text text = readText(frame, requestId, deadline);
+        if (text == null) return null;
+
+        ExpiryDateParser.Result best = ExpiryDateParser.find(text.getText());
+        if (isConfident(best)) return best.getDate();
+
+        // Second pass: dates are often printed too small for the downscaled frame,
+        // so re-read the regions that contain digits from the original photo.
+        // A month-only match from the first pass may just be a price and is only kept as a fallback.
+        float scale = (float) photo.getWidth() / frame.getWidth();
+        for (Rect region : findCandidateRegions(text, scale, photo.getWidth(), photo.getHeight())) {
+            Bitmap crop = Bitmap.createBitmap(photo, region.left, region.top, region.width(), region.height());
+            Text regionText = readText(ImageUtils.scaleDown(crop, MAX_FRAME_SIZE), requestId, deadline);
+            if (regionText == null) break;
+
+            ExpiryDateParser.Result result = ExpiryDateParser.find(regionText.getText());
+            if (result != null && result.isBetterThan(best)) {
+                best = result;
+                if (isConfident(best)) break;
+            }
+        }
+        return best == null ? null : best.getDate();
+    }
+
+    // A full date or a date right after a keyword, no need to look further
+    private static boolean isConfident(ExpiryDateParser.Result result) {
+        return result != null && result.getConfidence() != ExpiryDateParser.Confidence.MONTH_ONLY;
+    }
+
+    // Bounding boxes of text blocks containing digits, mapped back to photo coordinates
+    private static List<Rect> findCandidateRegions(Text text, float scale, int width, int height) {
+        List<Rect> regions = new ArrayList<>();
+        for (Text.TextBlock block : text.getTextBlocks()) {
+            Rect box = block.getBoundingBox();
+            if (box == null || !containsDigit(block.getText())) continue;
+
+            Rect region = new Rect(
+                    Math.max(0, Math.round(box.left * scale) - REGION_PADDING),
+                    Math.max(0, Math.round(box.top * scale) - REGION_PADDING),
+                    Math.min(width, Math.round(box.right * scale) + REGION_PADDING),
+                    Math.min(height, Math.round(box.bottom * scale) + REGION_PADDING));
+            if (region.width() > 0 && region.height() > 0) {
+                regions.add(region);
+            }
+            if (regions.size() == MAX_REGIONS) break;
+        }
+        return regions;
+    }
+
+    private static boolean containsDigit(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isDigit(text.charAt(i))) return true;
+        }
+        return false;
+    }
+
+    // Returns null once the deadline has passed, a newer photo was submitted or the OCR engine fails
+    private Text readText(Bitmap bitmap, int requestId, long deadline) {
+        long remaining = deadline - SystemClock.elapsedRealtime();
+        if (remaining <= 0 || requestId != generation.get()) return null;
+
+        try {
+            return Tasks.await(recognizer.process(InputImage.fromBitmap(bitmap, 0)),
+                    remaining, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
@@ -67,4 +67,14 @@ public class ImageUtils {
         matrix.postRotate(angle);
         return Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
     }
+
+    public static Bitmap scaleDown(Bitmap source, int maxSize) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int longestSide = Math.max(width, height);
+        if (longestSide <= maxSize) return source;
+
+        float scale = (float) maxSize / longestSide;
+        return Bitmap.createScaledBitmap(source, Math.round(width * scale), Math.round(height * scale), true);
+    }
 }
@@ -0,0 +1,77 @@
+package com.example.myapp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class InventoryStats {
+    private int expired;
+    private int expiringSoon;
+    private int expiringThisWeek;
+    private int expiringLater;
+    private final List<Week> weeks = new ArrayList<>();
+
+    // Items already past their expiry date
+    public int getExpired() {
+        return expired;
+    }
+
+    public void setExpired(int expired) {
+        this.expired = expired;
+    }
+
+    // Items expiring within the next 3 days
+    public int getExpiringSoon() {
+        return expiringSoon;
+    }
+
+    public void setExpiringSoon(int expiringSoon) {
+        this.expiringSoon = expiringSoon;
+    }
+
+    // Items expiring in 3 to 7 days, not counted in getExpiringSoon()
+    public int getExpiringThisWeek() {
+        return expiringThisWeek;
+    }
+
+    public void setExpiringThisWeek(int expiringThisWeek) {
+        this.expiringThisWeek = expiringThisWeek;
+    }
+
+    // Items expiring in more than 7 days
+    public int getExpiringLater() {
+        return expiringLater;
+    }
+
+    public void setExpiringLater(int expiringLater) {
+        this.expiringLater = expiringLater;
+    }
+
+    // Most recent week first
+    public List<Week> getWeeks() {
+        return weeks;
+    }
+
+    public static class Week {
+        private final String weekStart;
+        private final int consumed;
+        private final int wasted;
+
+        public Week(String weekStart, int consumed, int wasted) {
+            this.weekStart = weekStart;
+            this.consumed = consumed;
+            this.wasted = wasted;
+        }
+
+        public String getWeekStart() {
+            return weekStart;
+        }
+
+        public int getConsumed() {
+            return consumed;
+        }
+
+        public int getWasted() {
+            return wasted;
+        }
+    }
+}
@@ -10,6 +10,8 @@ import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.view.LayoutInflater;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.inputmethod.InputMethodManager;
@@ -28,27 +30,39 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageCapture;
 import androidx.camera.core.ImageCaptureException;
 import androidx.camera.core.ImageProxy;
+import androidx.camera.core.Preview;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
 
 public class MainActivity extends AppCompatActivity {
+    private static final int MENU_STATISTICS = 1;
+    // Number of weeks shown in the statistics report
+    private static final int STATISTICS_WEEKS = 8;
+    
     private RecyclerView recyclerView;
     private FoodItemAdapter adapter;
     private List<FoodItem> foodItems;
     private DatabaseHelper dbHelper;
     private ImageCapture imageCapture;
+    private ProcessCameraProvider cameraProvider;
+    private ExpiryDateRecognizer expiryDateRecognizer;
     private Bitmap capturedImage;
     private String currentImagePath;
     private FoodItem currentEditItem;
@@ -60,6 +74,7 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main);
 
         dbHelper = new DatabaseHelper(this);
+        expiryDateRecognizer = new ExpiryDateRecognizer();
         foodItems = dbHelper.getAllFoodItems();
 
         recyclerView = findViewById(R.id.recyclerView);
@@ -106,6 +121,27 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        expiryDateRecognizer.close();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        menu.add(Menu.NONE, MENU_STATISTICS, Menu.NONE, "Statistics");
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == MENU_STATISTICS) {
+            showStatisticsDialog();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
     private void filterFoodItems(String query) {
         List<FoodItem> filteredList = dbHelper.searchFoodItems(query);
         adapter.updateList(filteredList);
@@ -160,6 +196,41 @@ public class MainActivity extends AppCompatActivity {
         dialog.show();
     }
     
+    private void showStatisticsDialog() {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        View view = getLayoutInflater().inflate(R.layout.dialog_statistics, null);
+        
+        // Only reads the statistics tables, the food items are not loaded
+        InventoryStats stats = dbHelper.getInventoryStats(STATISTICS_WEEKS);
+        ((TextView) view.findViewById(R.id.stats_expired)).setText("Expired: " + stats.getExpired());
+        ((TextView) view.findViewById(R.id.stats_expiring_soon))
+                .setText("Expiring within 3 days: " + stats.getExpiringSoon());
+        ((TextView) view.findViewById(R.id.stats_expiring_this_week))
+                .setText("Expiring in 3–7 days: " + stats.getExpiringThisWeek());
+        ((TextView) view.findViewById(R.id.stats_expiring_later))
+                .setText("Expiring later: " + stats.getExpiringLater());
+        
+        StringBuilder weeks = new StringBuilder();
+        for (InventoryStats.Week week : stats.getWeeks()) {
+            weeks.append("Week of ").append(week.getWeekStart()).append(": ")
+                 .append(week.getConsumed()).append(" eaten, ")
+                 .append(week.getWasted()).append(" thrown away\n");
+        }
+        ((TextView) view.findViewById(R.id.stats_weeks))
+                .setText(weeks.length() > 0 ? weeks.toString().trim() : "Nothing removed yet");
+        
+        builder.setView(view)
+               .setPositiveButton("Close", null)
+               .setNeutralButton("Recalculate", (dialog, which) -> {
+                   // Rebuild the statistics from all items and compare with the stored ones
+                   boolean consistent = dbHelper.checkStatistics();
+                   Toast.makeText(this, consistent ? "Statistics are up to date" : "Statistics were repaired",
+                           Toast.LENGTH_SHORT).show();
+               });
+        
+        builder.create().show();
+    }
+    
     private void showSearchDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         View view = getLayoutInflater().inflate(R.layout.dialog_search, null);
@@ -199,26 +270,86 @@ public class MainActivity extends AppCompatActivity {
     private void showCameraDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         View view = getLayoutInflater().inflate(R.layout.dialog_camera, null);
+        PreviewView previewView = view.findViewById(R.id.preview_view);
         
         Button captureButton = view.findViewById(R.id.capture_button);
         captureButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                // Here we would implement camera capture logic
-                // For now, just simulate capturing and proceed to add item dialog
-                showAddItemDialog(null);
-                // Close the camera dialog
                 AlertDialog dialog = (AlertDialog) v.getTag();
-                if (dialog != null) {
-                    dialog.dismiss();
+                if (imageCapture == null) {
+                    // Camera not ready yet, continue without a photo
+                    showAddItemDialog(null);
+                    if (dialog != null) {
+                        dialog.dismiss();
+                    }
+                    return;
                 }
+                
+                // Only one capture at a time, a second tap would open a second add dialog
+                v.setEnabled(false);
+                imageCapture.takePicture(ContextCompat.getMainExecutor(MainActivity.this),
+                        new ImageCapture.OnImageCapturedCallback() {
+                    @Override
+                    public void onCaptureSuccess(@NonNull ImageProxy image) {
+                        if (dialog == null || !dialog.isShowing()) {
+                            // Camera dialog was closed while the photo was taken
+                            image.close();
+                            return;
+                        }
+                        
+                        int rotation = image.getImageInfo().getRotationDegrees();
+                        Bitmap bitmap = ImageUtils.imageProxyToBitmap(image);
+                        image.close();
+                        if (bitmap != null && rotation != 0) {
+                            bitmap = ImageUtils.rotateImage(bitmap, rotation);
+                        }
+                        
+                        capturedImage = bitmap;
+                        currentImagePath = null;
+                        showAddItemDialog(null);
+                        dialog.dismiss();
+                    }
+                    
+                    @Override
+                    public void onError(@NonNull ImageCaptureException exception) {
+                        exception.printStackTrace();
+                        if (dialog == null || !dialog.isShowing()) return;
+                        v.setEnabled(true);
+                        Toast.makeText(MainActivity.this, "Could not take photo", Toast.LENGTH_SHORT).show();
+                    }
+                });
             }
         });
         
         builder.setView(view);
         AlertDialog dialog = builder.create();
         captureButton.setTag(dialog);
+        dialog.setOnDismissListener(d -> {
+            // Release the camera once the dialog is gone
+            if (cameraProvider != null) {
+                cameraProvider.unbindAll();
+            }
+            imageCapture = null;
+        });
         dialog.show();
+        
+        ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
+        cameraProviderFuture.addListener(() -> {
+            // The dialog may have been closed before the camera was ready
+            if (!dialog.isShowing()) return;
+            try {
+                cameraProvider = cameraProviderFuture.get();
+                Preview preview = new Preview.Builder().build();
+                preview.setSurfaceProvider(previewView.getSurfaceProvider());
+                imageCapture = new ImageCapture.Builder().build();
+                
+                cameraProvider.unbindAll();
+                cameraProvider.bindToLifecycle(this, CameraSelector.DEFAULT_BACK_CAMERA, preview, imageCapture);
+            } catch (ExecutionException | InterruptedException e) {
+                e.printStackTrace();
+            }
+        }, ContextCompat.getMainExecutor(this));
     }
 
     private void showAddItemDialog(FoodItem itemToEdit) {
@@ -260,8 +391,10 @@ public class MainActivity extends AppCompatActivity {
             imageView.setImageBitmap(capturedImage);
         }
         
+        // Remember when the user picks a date, so a late OCR result does not overwrite it
+        boolean[] dateChangedByUser = {false};
         datePicker.init(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), 
-                calendar.get(Calendar.DAY_OF_MONTH), null);
+                calendar.get(Calendar.DAY_OF_MONTH), (picker, year, month, day) -> dateChangedByUser[0] = true);
         
         retakeButton.setOnClickListener(v -> {
             // Go back to camera dialog
@@ -323,21 +456,10 @@ public class MainActivity extends AppCompatActivity {
             builder.setNeutralButton("Delete", (dialog, which) -> {
                 new AlertDialog.Builder(this)
                     .setTitle("Delete Item")
-                    .setMessage("Are you sure you want to delete this item?")
-                    .setPositiveButton("Yes", (dialogInterface, i) -> {
-                        // Delete image file
-                        if (currentEditItem.getImagePath() != null) {
-                            ImageUtils.deleteImage(currentEditItem.getImagePath());
-                        }
-                        
-                        // Delete from database
-                        dbHelper.deleteFoodItem(currentEditItem.getId());
-                        
-                        // Remove from list
-                        foodItems.remove(currentEditItem);
-                        adapter.notifyDataSetChanged();
-                    })
-                    .setNegativeButton("No", null)
+                    .setMessage("Was this item eaten or thrown away?")
+                    .setPositiveButton("Eaten", (dialogInterface, i) -> deleteCurrentItem(false))
+                    .setNeutralButton("Thrown away", (dialogInterface, i) -> deleteCurrentItem(true))
+                    .setNegativeButton("Cancel", null)
                     .show();
             });
         }
@@ -345,5 +467,29 @@ public class MainActivity extends AppCompatActivity {
         AlertDialog dialog = builder.create();
         retakeButton.setTag(dialog);
         dialog.show();
+        
+        if (!isEditMode && capturedImage != null) {
+            // Pre-fill the expiry date from the text printed on the package
+            expiryDateRecognizer.recognize(capturedImage, date -> {
+                if (!dialog.isShowing() || dateChangedByUser[0]) return;
+                datePicker.updateDate(date.get(Calendar.YEAR), date.get(Calendar.MONTH),
+                        date.get(Calendar.DAY_OF_MONTH));
+                Toast.makeText(this, "Expiry date recognized, please check", Toast.LENGTH_SHORT).show();
+            });
+        }
+    }
+
+    private void deleteCurrentItem(boolean wasted) {
+        // Delete image file
+        if (currentEditItem.getImagePath() != null) {
+            ImageUtils.deleteImage(currentEditItem.getImagePath());
+        }
+        
+        // Delete from database, counted as eaten or thrown away in the statistics
+        dbHelper.deleteFoodItem(currentEditItem.getId(), wasted);
+        
+        // Remove from list
+        foodItems.remove(currentEditItem);
+        adapter.notifyDataSetChanged();
     }
 }
@@ -0,0 +1,96 @@
+package com.example.myapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+// Runs the parser over the bundled label samples and reports accuracy and latency.
+// ML Kit does not run on the JVM, so the samples are the recognizer's text output, not images.
+public class ExpiryDateParserSamplesTest {
+
+    private static final String SAMPLES = "/expiry_samples.tsv";
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 1000;
+    // The parser runs inside the 2s OCR budget, it must stay far below that
+    private static final double MAX_MEAN_LATENCY_MS = 1.0;
+
+    private static class Sample {
+        final String expected;
+        final String text;
+
+        Sample(String expected, String text) {
+            this.expected = expected;
+            this.text = text;
+        }
+    }
+
+    private static List<Sample> loadSamples() throws IOException {
+        List<Sample> samples = new ArrayList<>();
+        InputStream in = ExpiryDateParserSamplesTest.class.getResourceAsStream(SAMPLES);
+        assertNotNull("missing " + SAMPLES, in);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\t", 2);
+            String expected = parts[0].equals("-") ? null : parts[0];
+            samples.add(new Sample(expected, parts[1].replace("\\n", "\n")));
+        }
+        reader.close();
+        return samples;
+    }
+
+    @Test
+    public void measuresAccuracyAndLatency() throws IOException {
+        List<Sample> samples = loadSamples();
+        Calendar now = ExpiryDateParserTest.now();
+
+        int correct = 0;
+        StringBuilder failures = new StringBuilder();
+        for (Sample sample : samples) {
+            String actual = ExpiryDateParserTest.format(ExpiryDateParser.parse(sample.text, now));
+            boolean match = sample.expected == null ? actual == null : sample.expected.equals(actual);
+            if (match) {
+                correct++;
+            } else {
+                failures.append("\n  expected ").append(sample.expected).append(", got ").append(actual)
+                        .append(": ").append(sample.text.replace("\n", " | "));
+            }
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (Sample sample : samples) {
+                ExpiryDateParser.parse(sample.text, now);
+            }
+        }
+        long maxNanos = 0;
+        long totalNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            for (Sample sample : samples) {
+                long start = System.nanoTime();
+                ExpiryDateParser.parse(sample.text, now);
+                long elapsed = System.nanoTime() - start;
+                totalNanos += elapsed;
+                maxNanos = Math.max(maxNanos, elapsed);
+            }
+        }
+        double meanMs = totalNanos / 1e6 / ((long) MEASURED_ROUNDS * samples.size());
+
+        System.out.println(String.format("Expiry date samples: %d/%d correct (%.1f%%), mean %.4f ms, max %.4f ms",
+                correct, samples.size(), 100.0 * correct / samples.size(), meanMs, maxNanos / 1e6));
+
+        assertEquals("wrong dates:" + failures, samples.size(), correct);
+        assertTrue("mean latency " + meanMs + " ms", meanMs < MAX_MEAN_LATENCY_MS);
+    }
+}
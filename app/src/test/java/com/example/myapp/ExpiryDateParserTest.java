@@ -0,0 +1,126 @@
+package com.example.myapp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+public class ExpiryDateParserTest {
+
+    // Fixed reference date, so the plausible year range does not move with the clock
+    static Calendar now() {
+        Calendar now = Calendar.getInstance();
+        now.clear();
+        now.set(2026, Calendar.OCTOBER, 19);
+        return now;
+    }
+
+    static String format(Calendar date) {
+        return date == null ? null : String.format("%tF", date);
+    }
+
+    private static String parse(String text) {
+        return format(ExpiryDateParser.parse(text, now()));
+    }
+
+    @Test
+    public void parsesDayMonthYear() {
+        assertEquals("2027-05-12", parse("12.05.2027"));
+        assertEquals("2027-05-12", parse("12-05-2027"));
+        assertEquals("2027-05-02", parse("2.5.2027"));
+    }
+
+    @Test
+    public void parsesDayMonthShortYear() {
+        assertEquals("2027-05-12", parse("12/05/27"));
+        assertEquals("2027-05-12", parse("12.05.27"));
+    }
+
+    @Test
+    public void parsesSpacedDate() {
+        assertEquals("2027-05-12", parse("12. 05. 2027"));
+    }
+
+    @Test
+    public void monthYearMeansEndOfMonth() {
+        assertEquals("2027-03-31", parse("03/27"));
+        assertEquals("2028-02-29", parse("02.2028"));
+        assertEquals("2027-04-30", parse("04,2027"));
+    }
+
+    @Test
+    public void fixesDigitLookalikes() {
+        assertEquals("2027-05-12", parse("12.O5.2027"));
+        assertEquals("2027-01-11", parse("l1.0l.2027"));
+    }
+
+    @Test
+    public void prefersDateAfterKeyword() {
+        assertEquals("2026-11-01", parse("mindestens haltbar bis 01.11.2026 hergestellt 15.10.2027"));
+        assertEquals("2027-03-31", parse("prod 01.01.2026 exp 03/27"));
+        assertEquals("2027-05-12", parse("Best before: 12.05.2027 LOT 01.01.2028"));
+    }
+
+    @Test
+    public void skipsInvalidDateAfterKeyword() {
+        assertEquals("2027-02-28", parse("best before 31.02.2027 or 28.02.2027"));
+    }
+
+    @Test
+    public void fullDateRanksAboveMonthYear() {
+        assertEquals("2027-05-12", parse("12.05.2027 charge 06/29"));
+    }
+
+    @Test
+    public void ignoresPrices() {
+        assertEquals("2027-05-12", parse("Preis 4,29 EUR 12.05.2027"));
+        assertEquals("2027-05-12", parse("12.05.2027 1,99 €/kg"));
+        assertNull(parse("Preis 4,29 EUR"));
+        assertNull(parse("Preis 3.29 $"));
+        assertNull(parse("Net wt 1.25 lb"));
+        assertEquals("2027-12-31", parse("BB 12/27 LOT 1.29"));
+        assertEquals("2027-05-12", parse("$3.29 12.05.2027"));
+    }
+
+    @Test
+    public void acceptsShortMonthYearAfterKeyword() {
+        assertEquals("2029-04-30", parse("MHD: 4,29"));
+        assertEquals("2027-03-31", parse("EXP 03.27"));
+    }
+
+    @Test
+    public void rejectsImplausibleYears() {
+        assertNull(parse("LOT 12.05.1999"));
+        assertNull(parse("12.05.2099"));
+    }
+
+    @Test
+    public void rejectsPastDates() {
+        assertNull(parse("12.10.2026"));
+        assertNull(parse("09/26"));
+        assertEquals("2026-10-17", parse("17.10.2026"));
+        assertEquals("2026-10-31", parse("10/26"));
+        assertEquals("2027-01-15", parse("hergestellt 01.09.2026 MHD 15.01.2027"));
+    }
+
+    @Test
+    public void reportsConfidence() {
+        assertEquals(ExpiryDateParser.Confidence.AFTER_KEYWORD,
+                ExpiryDateParser.find("MHD 12.05.2027", now()).getConfidence());
+        assertEquals(ExpiryDateParser.Confidence.FULL_DATE,
+                ExpiryDateParser.find("12.05.2027 charge 06/29", now()).getConfidence());
+        assertEquals(ExpiryDateParser.Confidence.MONTH_ONLY,
+                ExpiryDateParser.find("06/29", now()).getConfidence());
+        assertNull(ExpiryDateParser.find("Preis 3.29 $", now()));
+    }
+
+    @Test
+    public void returnsNullWithoutDate() {
+        assertNull(parse(null));
+        assertNull(parse(""));
+        assertNull(parse("Vollmilch 3,5% Fett"));
+        assertNull(parse("EXP 2027"));
+    }
+}